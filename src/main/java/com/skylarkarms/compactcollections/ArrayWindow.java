@@ -1,13 +1,24 @@
 package com.skylarkarms.compactcollections;
 
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongConsumer;
 
 /**
  * Offers a windowed view of an array
+ * <p> The window can be moved over the same array with {@link #slide(int)} and {@link #reset(int, int)}
+ * without allocating a new instance.
  * */
 public class ArrayWindow<T> implements Iterable<T> {
     final T[] original;
-    final int start, end, width, finalIndex;
+    int start, end, width, finalIndex;
 
     /**
      * @param start from inclusive
@@ -15,13 +26,30 @@ public class ArrayWindow<T> implements Iterable<T> {
      * */
     public ArrayWindow(T[] original, int start, int end) {
         this.original = original;
+        checkBounds(start, end, original.length);
+        set(start, end);
+    }
+
+    static void checkBounds(int start, int end, int length) {
         if (start < 0) throw new IllegalStateException("start cannot be less than zero.");
+        if (end >= length) throw new IllegalStateException("end cannot be greater than the last index of the original array.");
+        if (end + 1 - start < 0) throw new IllegalStateException("end cannot be lesser than start.");
+    }
+
+    /**
+     * Validates {@code 0 <= from <= to + 1 <= width}, an empty sub window is allowed.
+     * */
+    static void checkSubBounds(int from, int to, int width) {
+        if (from < 0) throw new IndexOutOfBoundsException("from [" + from + "] cannot be less than 0");
+        if (to >= width) throw new IndexOutOfBoundsException("to [" + to + "] greater than length [" + width + "]");
+        if (from > to + 1) throw new IndexOutOfBoundsException("from [" + from + "] greater than to [" + to + "] + 1");
+    }
+
+    private void set(int start, int end) {
         this.start = start;
-        if (end > original.length) throw new IllegalStateException("end cannot be greater than the length of the original array.");
         this.end = end;
         this.finalIndex = end + 1;
-        width = finalIndex - start;
-        if (width < 0) throw new IllegalStateException("end cannot be lesser than start.");
+        this.width = finalIndex - start;
     }
 
     public T get(int index) {
@@ -33,18 +61,511 @@ public class ArrayWindow<T> implements Iterable<T> {
 
     public int length() { return width; }
 
+    /**
+     * Moves both bounds of this window by {@code n} positions (negative values move it backwards).
+     * */
+    public ArrayWindow<T> slide(int n) {
+        int ns = start + n, ne = end + n;
+        checkBounds(ns, ne, original.length);
+        set(ns, ne);
+        return this;
+    }
+
+    /**
+     * @param start from inclusive
+     * @param end to inclusive
+     * */
+    public ArrayWindow<T> reset(int start, int end) {
+        checkBounds(start, end, original.length);
+        set(start, end);
+        return this;
+    }
+
+    /**
+     * @param from inclusive, relative to this window.
+     * @param to inclusive, relative to this window.
+     * @return a new window over the same original array.
+     * */
+    public ArrayWindow<T> subWindow(int from, int to) {
+        checkSubBounds(from, to, width);
+        return new ArrayWindow<>(original, start + from, start + to);
+    }
+
+    /**
+     * Iterates the elements without allocating an {@link Iterator}.
+     * */
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        final T[] o = original;
+        for (int i = start, l = finalIndex; i < l; i++) {
+            action.accept(o[i]);
+        }
+    }
+
+    public T reduce(T identity, BinaryOperator<T> accumulator) {
+        final T[] o = original;
+        T res = identity;
+        for (int i = start, l = finalIndex; i < l; i++) {
+            res = accumulator.apply(res, o[i]);
+        }
+        return res;
+    }
+
+    /**
+     * Feeds consecutive, non-overlapping windows of {@code width} elements within this window.
+     * <p> A single cursor instance is reused between calls to {@code action}.
+     * Trailing elements that do not fill a whole window are ignored.
+     * */
+    public void tumbling(int width, Consumer<? super ArrayWindow<T>> action) { sliding(width, width, action); }
+
+    /**
+     * Feeds windows of {@code width} elements, each moved {@code step} positions from the previous one, within this window.
+     * <p> A single cursor instance is reused between calls to {@code action}.
+     * */
+    public void sliding(int width, int step, Consumer<? super ArrayWindow<T>> action) {
+        if (width < 1 || step < 1) throw new IllegalStateException("width and step must be greater than zero.");
+        if (width > this.width) return;
+        final int last = end;
+        ArrayWindow<T> cursor = new ArrayWindow<>(original, start, start + width - 1);
+        action.accept(cursor);
+        while (cursor.end + step <= last) {
+            action.accept(cursor.slide(step));
+        }
+    }
+
     @Override
     public Iterator<T> iterator() {
+        final int s = start, f = finalIndex;
         return new Iterator<>() {
-            int i_start = start;
+            int i_start = s;
             @Override
             public boolean hasNext() {
                 int next = i_start + 1;
-                return next <= finalIndex;
+                return next <= f;
             }
 
             @Override
             public T next() { return original[i_start++]; }
         };
     }
+
+    /**
+     * Monotonic queue of indices, used for O(1) amortized min/max over a moving window.
+     * */
+    static final class MonotonicQueue {
+        int[] q = new int[0];
+        int head, size;
+
+        void clear(int capacity) {
+            if (q.length < capacity) q = new int[capacity];
+            head = 0;
+            size = 0;
+        }
+
+        int front() { return q[head]; }
+
+        int back() {
+            int i = head + size - 1;
+            return q[i >= q.length ? i - q.length : i];
+        }
+
+        void pollBack() { size--; }
+
+        void offer(int index) {
+            int i = head + size++;
+            q[i >= q.length ? i - q.length : i] = index;
+        }
+
+        void dropBefore(int start) {
+            while (size > 0 && q[head] < start) {
+                head = head + 1 == q.length ? 0 : head + 1;
+                size--;
+            }
+        }
+    }
+
+    /**
+     * Base of the primitive windows.
+     * <p> Aggregates are tracked lazily: once {@code sum}, {@code min} or {@code max} has been queried,
+     * it is maintained incrementally on every forward {@link #slide(int)} that overlaps the previous position,
+     * at a cost of O(1) (amortized for min/max) per element entering or leaving the window.
+     * Any other movement recomputes the tracked aggregates.
+     * */
+    public abstract static class Primitive<W extends Primitive<W>> {
+        final int originalLength;
+        int start, end, width;
+        boolean sumTracked, minTracked, maxTracked;
+        private final MonotonicQueue minQ = new MonotonicQueue(), maxQ = new MonotonicQueue();
+
+        Primitive(int originalLength, int start, int end) {
+            this.originalLength = originalLength;
+            checkBounds(start, end, originalLength);
+            this.start = start;
+            this.end = end;
+            this.width = end + 1 - start;
+        }
+
+        /**
+         * @return true if {@code original[i] > original[j]}
+         * */
+        abstract boolean greater(int i, int j);
+        abstract void sumAdd(int i);
+        abstract void sumRemove(int i);
+        abstract void sumRecompute();
+        abstract W cursor(int start, int end);
+
+        @SuppressWarnings("unchecked")
+        private W self() { return (W) this; }
+
+        public int length() { return width; }
+
+        final int index(int index) {
+            if (index < 0) throw new IndexOutOfBoundsException("Index cannot be less than 0");
+            if (index >= width) throw new IndexOutOfBoundsException("index [" + index + "] greater than length [" + width + "]");
+            return index + start;
+        }
+
+        /**
+         * Moves both bounds of this window by {@code n} positions (negative values move it backwards).
+         * */
+        public W slide(int n) {
+            final int ns = start + n, ne = end + n;
+            checkBounds(ns, ne, originalLength);
+            if (n > 0 && n < width) {
+                final int prevEnd = end;
+                if (sumTracked) {
+                    for (int i = start; i < ns; i++) sumRemove(i);
+                    for (int i = prevEnd + 1; i <= ne; i++) sumAdd(i);
+                }
+                start = ns;
+                end = ne;
+                if (minTracked) {
+                    minQ.dropBefore(ns);
+                    for (int i = prevEnd + 1; i <= ne; i++) enterMin(i);
+                }
+                if (maxTracked) {
+                    maxQ.dropBefore(ns);
+                    for (int i = prevEnd + 1; i <= ne; i++) enterMax(i);
+                }
+            } else if (n != 0) {
+                start = ns;
+                end = ne;
+                recomputeTracked();
+            }
+            return self();
+        }
+
+        /**
+         * @param start from inclusive
+         * @param end to inclusive
+         * */
+        public W reset(int start, int end) {
+            checkBounds(start, end, originalLength);
+            this.start = start;
+            this.end = end;
+            this.width = end + 1 - start;
+            recomputeTracked();
+            return self();
+        }
+
+        /**
+         * @param from inclusive, relative to this window.
+         * @param to inclusive, relative to this window.
+         * @return a new window over the same original array.
+         * */
+        public W subWindow(int from, int to) {
+            checkSubBounds(from, to, width);
+            return cursor(start + from, start + to);
+        }
+
+        /**
+         * @see ArrayWindow#tumbling(int, Consumer)
+         * */
+        public void tumbling(int width, Consumer<? super W> action) { sliding(width, width, action); }
+
+        /**
+         * @see ArrayWindow#sliding(int, int, Consumer)
+         * */
+        public void sliding(int width, int step, Consumer<? super W> action) {
+            if (width < 1 || step < 1) throw new IllegalStateException("width and step must be greater than zero.");
+            if (width > this.width) return;
+            final int last = end;
+            W cursor = cursor(start, start + width - 1);
+            action.accept(cursor);
+            while (cursor.end + step <= last) {
+                action.accept(cursor.slide(step));
+            }
+        }
+
+        private void recomputeTracked() {
+            if (sumTracked) sumRecompute();
+            if (minTracked) rebuildMin();
+            if (maxTracked) rebuildMax();
+        }
+
+        final void trackSum() {
+            if (!sumTracked) {
+                sumRecompute();
+                sumTracked = true;
+            }
+        }
+
+        private void enterMin(int i) {
+            final MonotonicQueue q = minQ;
+            while (q.size > 0 && !greater(i, q.back())) q.pollBack();
+            q.offer(i);
+        }
+
+        private void enterMax(int i) {
+            final MonotonicQueue q = maxQ;
+            while (q.size > 0 && !greater(q.back(), i)) q.pollBack();
+            q.offer(i);
+        }
+
+        private void rebuildMin() {
+            minQ.clear(width);
+            for (int i = start; i <= end; i++) enterMin(i);
+        }
+
+        private void rebuildMax() {
+            maxQ.clear(width);
+            for (int i = start; i <= end; i++) enterMax(i);
+        }
+
+        final int minIndex() {
+            if (width == 0) throw new NoSuchElementException("Empty window.");
+            if (!minTracked) {
+                rebuildMin();
+                minTracked = true;
+            }
+            return minQ.front();
+        }
+
+        final int maxIndex() {
+            if (width == 0) throw new NoSuchElementException("Empty window.");
+            if (!maxTracked) {
+                rebuildMax();
+                maxTracked = true;
+            }
+            return maxQ.front();
+        }
+    }
+
+    public static final class OfInt extends Primitive<OfInt> {
+        final int[] original;
+        private long sum;
+
+        /**
+         * @param start from inclusive
+         * @param end to inclusive
+         * */
+        public OfInt(int[] original, int start, int end) {
+            super(original.length, start, end);
+            this.original = original;
+        }
+
+        @Override
+        boolean greater(int i, int j) { return original[i] > original[j]; }
+
+        @Override
+        void sumAdd(int i) { sum += original[i]; }
+
+        @Override
+        void sumRemove(int i) { sum -= original[i]; }
+
+        @Override
+        void sumRecompute() {
+            final int[] o = original;
+            long s = 0;
+            for (int i = start; i <= end; i++) s += o[i];
+            sum = s;
+        }
+
+        @Override
+        OfInt cursor(int start, int end) { return new OfInt(original, start, end); }
+
+        public int get(int index) { return original[index(index)]; }
+
+        public long sum() {
+            trackSum();
+            return sum;
+        }
+
+        /**
+         * @throws NoSuchElementException if the window is empty.
+         * */
+        public int min() { return original[minIndex()]; }
+
+        /**
+         * @throws NoSuchElementException if the window is empty.
+         * */
+        public int max() { return original[maxIndex()]; }
+
+        public void forEach(IntConsumer action) {
+            final int[] o = original;
+            for (int i = start, l = end; i <= l; i++) action.accept(o[i]);
+        }
+
+        public int reduce(int identity, IntBinaryOperator accumulator) {
+            final int[] o = original;
+            int res = identity;
+            for (int i = start, l = end; i <= l; i++) res = accumulator.applyAsInt(res, o[i]);
+            return res;
+        }
+    }
+
+    public static final class OfLong extends Primitive<OfLong> {
+        final long[] original;
+        private long sum;
+
+        /**
+         * @param start from inclusive
+         * @param end to inclusive
+         * */
+        public OfLong(long[] original, int start, int end) {
+            super(original.length, start, end);
+            this.original = original;
+        }
+
+        @Override
+        boolean greater(int i, int j) { return original[i] > original[j]; }
+
+        @Override
+        void sumAdd(int i) { sum += original[i]; }
+
+        @Override
+        void sumRemove(int i) { sum -= original[i]; }
+
+        @Override
+        void sumRecompute() {
+            final long[] o = original;
+            long s = 0;
+            for (int i = start; i <= end; i++) s += o[i];
+            sum = s;
+        }
+
+        @Override
+        OfLong cursor(int start, int end) { return new OfLong(original, start, end); }
+
+        public long get(int index) { return original[index(index)]; }
+
+        public long sum() {
+            trackSum();
+            return sum;
+        }
+
+        /**
+         * @throws NoSuchElementException if the window is empty.
+         * */
+        public long min() { return original[minIndex()]; }
+
+        /**
+         * @throws NoSuchElementException if the window is empty.
+         * */
+        public long max() { return original[maxIndex()]; }
+
+        public void forEach(LongConsumer action) {
+            final long[] o = original;
+            for (int i = start, l = end; i <= l; i++) action.accept(o[i]);
+        }
+
+        public long reduce(long identity, LongBinaryOperator accumulator) {
+            final long[] o = original;
+            long res = identity;
+            for (int i = start, l = end; i <= l; i++) res = accumulator.applyAsLong(res, o[i]);
+            return res;
+        }
+    }
+
+    /**
+     * The incremental {@link #sum()} accumulates floating point rounding errors across slides,
+     * use {@link #reset(int, int)} to recompute it from scratch.
+     * <p> {@code NaN}s and infinities are counted apart from the finite sum,
+     * so they stop affecting {@link #sum()} once they leave the window.
+     * */
+    public static final class OfDouble extends Primitive<OfDouble> {
+        final double[] original;
+        private double sum;
+        private int nanCount, posInfCount, negInfCount;
+
+        /**
+         * @param start from inclusive
+         * @param end to inclusive
+         * */
+        public OfDouble(double[] original, int start, int end) {
+            super(original.length, start, end);
+            this.original = original;
+        }
+
+        @Override
+        boolean greater(int i, int j) { return Double.compare(original[i], original[j]) > 0; }
+
+        @Override
+        void sumAdd(int i) {
+            final double v = original[i];
+            if (Double.isFinite(v)) sum += v;
+            else countNonFinite(v, 1);
+        }
+
+        @Override
+        void sumRemove(int i) {
+            final double v = original[i];
+            if (Double.isFinite(v)) sum -= v;
+            else countNonFinite(v, -1);
+        }
+
+        private void countNonFinite(double v, int delta) {
+            if (v != v) nanCount += delta;
+            else if (v > 0) posInfCount += delta;
+            else negInfCount += delta;
+        }
+
+        @Override
+        void sumRecompute() {
+            final double[] o = original;
+            double s = 0;
+            nanCount = posInfCount = negInfCount = 0;
+            for (int i = start; i <= end; i++) {
+                final double v = o[i];
+                if (Double.isFinite(v)) s += v;
+                else countNonFinite(v, 1);
+            }
+            sum = s;
+        }
+
+        @Override
+        OfDouble cursor(int start, int end) { return new OfDouble(original, start, end); }
+
+        public double get(int index) { return original[index(index)]; }
+
+        public double sum() {
+            trackSum();
+            if (nanCount != 0 || (posInfCount != 0 && negInfCount != 0)) return Double.NaN;
+            if (posInfCount != 0) return Double.POSITIVE_INFINITY;
+            if (negInfCount != 0) return Double.NEGATIVE_INFINITY;
+            return sum;
+        }
+
+        /**
+         * @throws NoSuchElementException if the window is empty.
+         * */
+        public double min() { return original[minIndex()]; }
+
+        /**
+         * @throws NoSuchElementException if the window is empty.
+         * */
+        public double max() { return original[maxIndex()]; }
+
+        public void forEach(DoubleConsumer action) {
+            final double[] o = original;
+            for (int i = start, l = end; i <= l; i++) action.accept(o[i]);
+        }
+
+        public double reduce(double identity, DoubleBinaryOperator accumulator) {
+            final double[] o = original;
+            double res = identity;
+            for (int i = start, l = end; i <= l; i++) res = accumulator.applyAsDouble(res, o[i]);
+            return res;
+        }
+    }
 }
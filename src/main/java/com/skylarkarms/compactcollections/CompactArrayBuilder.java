@@ -3,8 +3,14 @@ package com.skylarkarms.compactcollections;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.IntFunction;
 import java.util.function.IntSupplier;
 
@@ -19,11 +25,11 @@ public interface CompactArrayBuilder<E> extends Iterable<E> {
      * @param initialCapacity the initial capacity of the inner array, before
      *                        incurring in a {@link System#arraycopy(Object, int, Object, int, int)} for array expansion.
      * */
-    static<E> CompactArrayBuilder<E> atomic(int maxSize, int initialCapacity, IntFunction<E[]> component) {
+    static<E> Atomic<E> atomic(int maxSize, int initialCapacity, IntFunction<E[]> component) {
         return new Atomic<>(maxSize, initialCapacity, component);
     }
 
-    static<E> CompactArrayBuilder<E> atomic(int initialCapacity, IntFunction<E[]> component) {
+    static<E> Atomic<E> atomic(int initialCapacity, IntFunction<E[]> component) {
         return new Atomic<>(Integer.MAX_VALUE, initialCapacity, component);
     }
 
@@ -35,6 +41,33 @@ public interface CompactArrayBuilder<E> extends Iterable<E> {
 
     E[] publish();
 
+    /**
+     * Sorts the elements of this builder with {@link Arrays#parallelSort(Object[], int, int, Comparator)}
+     * and publishes them in a single right-sized array.
+     * <p> By default a {@link #publish()} snapshot is sorted,
+     * {@link #ofSize(int, IntFunction)} builders sort in place and are left sorted.
+     * @param comparator if null, the natural ordering of the elements is used.
+     * */
+    default E[] publishSorted(Comparator<? super E> comparator) {
+        E[] res = publish();
+        Arrays.parallelSort(res, comparator);
+        return res;
+    }
+
+    /**
+     * Same as {@link #publishSorted(Comparator)}, keeping only the first of every run of elements
+     * for which {@code comparator} returns 0.
+     * <p> By default a {@link #publish()} snapshot is sorted and deduplicated,
+     * {@link #ofSize(int, IntFunction)} builders do it in place and are left sorted and deduplicated.
+     * @param comparator if null, the natural ordering of the elements is used.
+     * */
+    default E[] publishSortedDistinct(Comparator<? super E> comparator) {
+        E[] res = publish();
+        Arrays.parallelSort(res, comparator);
+        int m = dedup(res, res.length, comparator);
+        return m == res.length ? res : Arrays.copyOf(res, m);
+    }
+
     abstract class IndexMem {
         int index = 0;
     }
@@ -45,6 +78,78 @@ public interface CompactArrayBuilder<E> extends Iterable<E> {
         void add(int anInt);
         int[] publish();
 
+        default int size() { return publish().length; }
+
+        /**
+         * Sorts the elements of this builder with an LSD radix sort and publishes them in a single right-sized array.
+         * <p> By default a {@link #publish()} snapshot is sorted, {@link #ofSize(int)} builders are left sorted.
+         * */
+        default int[] publishSorted() {
+            int[] res = publish();
+            radixSort(res, res.length, null, 0);
+            return res;
+        }
+
+        /**
+         * Same as {@link #publishSorted()} without repeated values.
+         * <p> By default a {@link #publish()} snapshot is sorted and deduplicated,
+         * {@link #ofSize(int)} builders are left sorted and deduplicated.
+         * <p> The radix sort needs a scratch buffer of {@code size()} length:
+         * the spare capacity of the builder is used when it is large enough,
+         * otherwise a transient buffer is allocated (never below 256 elements, where {@link Arrays#sort(int[], int, int)} is used).
+         * */
+        default int[] publishSortedDistinct() {
+            int[] res = publish();
+            radixSort(res, res.length, null, 0);
+            int m = dedup(res, res.length);
+            return m == res.length ? res : Arrays.copyOf(res, m);
+        }
+
+        // Bulk operations over the live data of this builder, no copy is performed by the builders of {@link #ofSize(int)}.
+        // The defaults operate over a {@link #publish()} snapshot.
+        // Vectorized when the `jdk.incubator.vector` module is present.
+
+        /**
+         * @return the first index of {@code value}, or -1 if absent.
+         * */
+        default int indexOf(int value) {
+            int[] a = publish();
+            return IntOps.INSTANCE.indexOf(a, a.length, value);
+        }
+
+        default boolean contains(int value) { return indexOf(value) != -1; }
+
+        default long sum() {
+            int[] a = publish();
+            return IntOps.INSTANCE.sum(a, a.length);
+        }
+
+        /**
+         * @throws java.util.NoSuchElementException if empty.
+         * */
+        default int min() {
+            int[] a = publish();
+            if (a.length == 0) throw new NoSuchElementException("Empty builder.");
+            return IntOps.INSTANCE.min(a, a.length);
+        }
+
+        /**
+         * @throws java.util.NoSuchElementException if empty.
+         * */
+        default int max() {
+            int[] a = publish();
+            if (a.length == 0) throw new NoSuchElementException("Empty builder.");
+            return IntOps.INSTANCE.max(a, a.length);
+        }
+
+        /**
+         * @return the number of elements within {@code [from, to]}, both inclusive.
+         * */
+        default int count(int from, int to) {
+            int[] a = publish();
+            return IntOps.INSTANCE.countInRange(a, a.length, from, to);
+        }
+
         final class OfIntImpl
                 extends IndexMem
                 implements OfInt {
@@ -71,8 +176,73 @@ public interface CompactArrayBuilder<E> extends Iterable<E> {
                 }
             }
 
+            @Override
+            public int size() { return index; }
+
             @Override
             public int[] publish() { return Arrays.copyOf(intArr, index); }
+
+            @Override
+            public int[] publishSorted() {
+                final int n = index;
+                final int[] res = new int[n];
+                // the result doubles as the radix scratch buffer.
+                radixSort(intArr, n, res, 0);
+                System.arraycopy(intArr, 0, res, 0, n);
+                return res;
+            }
+
+            @Override
+            public int[] publishSortedDistinct() {
+                final int[] cur = intArr;
+                final int n = index;
+                if (cur.length - n >= n) radixSort(cur, n, cur, n);
+                else radixSort(cur, n, null, 0);
+                int m = dedup(cur, n);
+                index = m;
+                return Arrays.copyOf(cur, m);
+            }
+
+            @Override
+            public int indexOf(int value) { return IntOps.INSTANCE.indexOf(intArr, index, value); }
+
+            @Override
+            public boolean contains(int value) { return IntOps.INSTANCE.indexOf(intArr, index, value) != -1; }
+
+            @Override
+            public long sum() { return IntOps.INSTANCE.sum(intArr, index); }
+
+            @Override
+            public int min() {
+                if (index == 0) throw new NoSuchElementException("Empty builder.");
+                return IntOps.INSTANCE.min(intArr, index);
+            }
+
+            @Override
+            public int max() {
+                if (index == 0) throw new NoSuchElementException("Empty builder.");
+                return IntOps.INSTANCE.max(intArr, index);
+            }
+
+            @Override
+            public int count(int from, int to) { return IntOps.INSTANCE.countInRange(intArr, index, from, to); }
+
+            /**
+             * Appends the contents of {@code that} builder with a single {@link System#arraycopy(Object, int, Object, int, int)}.
+             * */
+            void addAll(OfIntImpl that) {
+                int n = that.index;
+                if (n == 0) return;
+                int[] cur = intArr;
+                int cl = cur.length, required = index + n;
+                if (required > cl) {
+                    int[] copy = new int[Math.max(getCeil(cl), required)];
+                    System.arraycopy(cur, 0, copy, 0, index);
+                    intArr = cur = copy;
+                }
+                System.arraycopy(that.intArr, 0, cur, index, n);
+                index = required;
+            }
         }
     }
 
@@ -88,34 +258,75 @@ public interface CompactArrayBuilder<E> extends Iterable<E> {
         void addRow(int value1, int value2);
         int[][] publish();
 
+        default int size() { return publish().length; }
+
+        /**
+         * Row-wise sum of every column, over the live data of the builders of {@link #ofSize(int, int)}
+         * (by default over a {@link #publish()} snapshot).
+         * Vectorized when the `jdk.incubator.vector` module is present.
+         * @return an array as long as the widest row.
+         * */
+        default long[] columnSums() {
+            final int[][] rows = publish();
+            int columns = 0;
+            for (int[] row : rows) columns = Math.max(columns, row.length);
+            final long[] acc = new long[columns];
+            final IntOps ops = IntOps.INSTANCE;
+            for (int[] row : rows) ops.accumulate(acc, row, row.length);
+            return acc;
+        }
+
         final class OfIntMatrixImpl
                 extends IndexMem
                 implements OfIntMatrix {
 
             private int[][] intArr;
+            private final int maxColumns;
+
+            OfIntMatrixImpl(int rowCapacity, int maxColumns) {
+                this.intArr = new int[rowCapacity][maxColumns];
+                this.maxColumns = maxColumns;
+            }
 
-            OfIntMatrixImpl(int rowCapacity, int maxColumns) { this.intArr = new int[rowCapacity][maxColumns]; }
+            private void grow() {
+                int l = intArr.length;
+                int[][] copy = Arrays.copyOf(intArr, Math.max(getCeil(l), l + 1));
+                for (int i = l; i < copy.length; i++) {
+                    copy[i] = new int[maxColumns];
+                }
+                intArr = copy;
+            }
 
             @Override
             public void addRow(int... values) {
-                if (index >= intArr.length) {
-                    intArr = Arrays.copyOf(intArr, getCeil(intArr.length), intArr.getClass());
-                }
+                if (index >= intArr.length) grow();
                 System.arraycopy(values, 0, intArr[index++], 0, values.length);
             }
 
             @Override
             public void addRow(int value1, int value2) {
-                if (index >= intArr.length) {
-                    intArr = Arrays.copyOf(intArr, getCeil(intArr.length), intArr.getClass());
-                }
+                if (index >= intArr.length) grow();
                 int[] row;
                 (row = intArr[index++])[0] = value1;
                 row[1] = value2;
             }
 
+            @Override
+            public int size() { return index; }
+
             @Override
             public int[][] publish() { return Arrays.copyOf(intArr, index); }
+
+            @Override
+            public long[] columnSums() {
+                final long[] acc = new long[maxColumns];
+                final int[][] rows = intArr;
+                final IntOps ops = IntOps.INSTANCE;
+                for (int i = 0, l = index; i < l; i++) {
+                    ops.accumulate(acc, rows[i], maxColumns);
+                }
+                return acc;
+            }
         }
     }
 
@@ -175,6 +386,41 @@ public interface CompactArrayBuilder<E> extends Iterable<E> {
         @Override
         public E[] publish() { return Arrays.copyOf(array, index); }
 
+        @Override
+        public E[] publishSorted(Comparator<? super E> comparator) {
+            Arrays.parallelSort(array, 0, index, comparator);
+            return Arrays.copyOf(array, index);
+        }
+
+        @Override
+        public E[] publishSortedDistinct(Comparator<? super E> comparator) {
+            final E[] cur = array;
+            final int n = index;
+            Arrays.parallelSort(cur, 0, n, comparator);
+            int m = dedup(cur, n, comparator);
+            // releases the duplicates.
+            Arrays.fill(cur, m, n, null);
+            index = m;
+            return Arrays.copyOf(cur, m);
+        }
+
+        /**
+         * Appends the contents of {@code that} builder with a single {@link System#arraycopy(Object, int, Object, int, int)}.
+         * */
+        void addAll(CompactArrayBuilderImpl<E> that) {
+            int n = that.index;
+            if (n == 0) return;
+            E[] cur = array;
+            int cl = cur.length, required = index + n;
+            if (required > cl) {
+                E[] copy = copyProvider.apply(Math.max(getCeil(cl), required));
+                System.arraycopy(cur, 0, copy, 0, index);
+                array = cur = copy;
+            }
+            System.arraycopy(that.array, 0, cur, index, n);
+            index = required;
+        }
+
         @Override
         public Iterator<E> iterator() {
             ArrayWindow<E> window = new ArrayWindow<>(array, 0, index - 1);
@@ -189,19 +435,52 @@ public interface CompactArrayBuilder<E> extends Iterable<E> {
         }
     }
 
+    /**
+     * Lock-free builder that publishes the contiguous prefix of committed elements.
+     * <p> Elements are stored in chunks of doubling length that are never copied nor moved,
+     * so growth never competes with concurrent writers.
+     * <p> A {@code published} watermark marks the contiguous committed prefix {@code [0, published)}.
+     * Only the writer whose index matches the watermark advances it, scanning forward over the slots
+     * committed out of order by others, so most additions never touch a shared counter besides the index.
+     * <p> Readers ({@link #publish()}, {@link #iterator()}, {@link #size()}, {@link #toString()}) never spin,
+     * they read the watermark once.
+     * <p> {@code null} elements are not allowed.
+     * <p> When a {@code maxSize} is given, the watermark saturates at {@code maxSize + 1},
+     * and from then on the slots overwritten by the next laps are read as committed,
+     * so a snapshot may contain elements of both the previous and the current lap.
+     * */
     final class Atomic<E> implements CompactArrayBuilder<E> {
 
         private final AtomicInteger _index = new AtomicInteger(-1);
         private final int maxSize;
+        /**
+         * The highest value of {@link #published}.
+         * */
+        private final int limit;
         private final IntSupplier indexSupplier;
         private final IntFunction<E[]> copyProvider;
 
+        /**
+         * Length of the first chunk, chunk {@code k > 0} spans {@code [base << (k - 1), base << k)}.
+         * */
+        private final int base, baseShift;
+        private final Object[][] chunks;
+
+        private volatile int published;
 
-        private volatile E[] array;
-        static final VarHandle ARRAY;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition sizeReached = lock.newCondition();
+        /**
+         * Written under {@link #lock} only.
+         * */
+        private volatile int waiters;
+
+        static final VarHandle PUBLISHED;
+        static final VarHandle CHUNK = MethodHandles.arrayElementVarHandle(Object[][].class);
+        static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
         static {
             try {
-                ARRAY = MethodHandles.lookup().findVarHandle(Atomic.class, "array", Object[].class);
+                PUBLISHED = MethodHandles.lookup().findVarHandle(Atomic.class, "published", int.class);
             } catch (NoSuchFieldException | IllegalAccessException e) {
                 throw new ExceptionInInitializerError(e);
             }
@@ -227,158 +506,286 @@ public interface CompactArrayBuilder<E> extends Iterable<E> {
                         return index;
                     };
             this.maxSize = maxSize;
-            this.array = component.apply(initialCapacity);
+            this.limit = maxSize == Integer.MAX_VALUE ? maxSize : maxSize + 1;
             this.copyProvider = component;
+            this.base = HashSpine.tableSizeFor(Math.max(initialCapacity, 1));
+            this.baseShift = Integer.numberOfTrailingZeros(base);
+            this.chunks = new Object[32 - baseShift][];
+            this.chunks[0] = component.apply(maxSize < base ? maxSize + 1 : base);
         }
 
+        private int chunkOf(int index) {
+            return index < base ? 0 : 32 - Integer.numberOfLeadingZeros(index) - baseShift;
+        }
 
-        @SuppressWarnings("unchecked")
-        @Override
-        public void add(E element) {
-            int index = indexSupplier.getAsInt();
-            E[] arr = array;
-            int al = arr.length;
-            if (index >= al) {
-                int ceil = getCeil(al);
-
-                E[] next = copyProvider.apply(ceil);
-                System.arraycopy(arr, 0, next, 0, al);
+        private int offsetOf(int index, int chunk) {
+            return chunk == 0 ? index : index - (base << (chunk - 1));
+        }
 
-                if ((arr = (E[]) ARRAY.compareAndExchange(this, arr, next)) == next) {
-                    next[index] = element;
-                }
-                else {
-                    //We must compete for the ceiling instead of competing for an index position.
-                    // competing for the index may leave the element placed inside an abandoned array.
-                    // while competing for the ceiling ensures that only the last set array is the one receiving the element.
-                    if (arr.length < ceil) {
-                        do {
-                            if (ARRAY.compareAndSet(this, arr, next)) {
-                                next[index] = element;
-                                return;
-                            }
-                            arr = array;
-                        } while (
-                                arr.length < ceil
-                        );
-                    }
-                    arr[index] = element;
-                }
-            } else {
-                arr[index] = element;
+        @SuppressWarnings("unchecked")
+        private Object[] chunkFor(int chunk) {
+            Object[] c;
+            if ((c = (Object[]) CHUNK.getAcquire(chunks, chunk)) == null) {
+                int start = base << (chunk - 1);
+                // the last chunk is trimmed to end at `maxSize`.
+                Object[] next = copyProvider.apply(Math.min(start, maxSize - start + 1));
+                if ((c = (Object[]) CHUNK.compareAndExchange(chunks, chunk, null, next)) == null) c = next;
             }
+            return c;
         }
 
-        @SuppressWarnings("unchecked")
+        /**
+         * @return the element at {@code index}, or null if not yet committed.
+         * */
+        private Object slotAt(int index) {
+            int k = chunkOf(index);
+            Object[] c;
+            // volatile, not acquire: the chunk read takes part in the handshake of `indexedAdd`.
+            return (c = (Object[]) CHUNK.getVolatile(chunks, k)) == null ?
+                    null : SLOT.getVolatile(c, offsetOf(index, k));
+        }
+
+        @Override
+        public void add(E element) { indexedAdd(element); }
+
+        /**
+         * @throws NullPointerException if the element is null.
+         * */
         @Override
         public int indexedAdd(E element) {
+            if (element == null) throw new NullPointerException("Atomic does not accept null elements.");
             int index = indexSupplier.getAsInt();
-            E[] arr = array;
-            int al = arr.length;
-            if (index >= al) {
-                int ceil = getCeil(al);
+            int k = chunkOf(index);
+            SLOT.setVolatile(chunkFor(k), offsetOf(index, k), element);
+            // The slot is written before the watermark is read, while the advancing writer moves the watermark
+            // before reading the slot (and its chunk), so at least one of both sides will see the other's write.
+            // Every access of this handshake must be volatile.
+            if (published == index) advance(index);
+            return index;
+        }
 
-                E[] next = copyProvider.apply(ceil);
-                System.arraycopy(arr, 0, next, 0, al);
+        /**
+         * Moves the watermark from {@code w} over every contiguous committed slot.
+         * */
+        private void advance(int w) {
+            boolean advanced = false;
+            while (PUBLISHED.compareAndSet(this, w, w + 1)) {
+                advanced = true;
+                if (++w >= limit || slotAt(w) == null) break;
+            }
+            if (advanced && waiters != 0) signalWaiters();
+        }
 
-                if ((arr = (E[]) ARRAY.compareAndExchange(this, arr, next)) == next) {
-                    next[index] = element;
+        private void signalWaiters() {
+            lock.lock();
+            try {
+                sizeReached.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Parks the calling thread (platform or virtual) until the first {@code n} elements have been committed.
+         * <p> Once returned, {@link #publish()} will contain at least {@code n} elements.
+         * @throws IllegalStateException if {@code n} is greater than {@code maxSize + 1}.
+         * */
+        public void awaitSize(int n) throws InterruptedException {
+            if (n > limit) throw new IllegalStateException("n cannot be greater than maxSize + 1");
+            if (published >= n) return;
+            lock.lock();
+            try {
+                waiters++;
+                try {
+                    while (published < n) sizeReached.await();
+                } finally {
+                    waiters--;
                 }
-                else {
-                    //We must compete for the ceiling instead of competing for an index position.
-                    // competing for the index may leave the element placed inside an abandoned array.
-                    // while competing for the ceiling ensures that only the last set array is the one receiving the element.
-                    if (arr.length < ceil) {
-                        do {
-                            if (ARRAY.compareAndSet(this, arr, next)) {
-                                next[index] = element;
-                                return index;
-                            }
-                            arr = array;
-                        } while (
-                                arr.length < ceil
-                        );
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Same as {@link #awaitSize(int)} with a timeout.
+         * @return false if the time elapsed before the first {@code n} elements were committed.
+         * */
+        public boolean awaitSize(int n, long timeout, TimeUnit unit) throws InterruptedException {
+            if (n > limit) throw new IllegalStateException("n cannot be greater than maxSize + 1");
+            if (published >= n) return true;
+            long nanos = unit.toNanos(timeout);
+            lock.lock();
+            try {
+                waiters++;
+                try {
+                    while (published < n) {
+                        if (nanos <= 0L) return false;
+                        nanos = sizeReached.awaitNanos(nanos);
                     }
-                    arr[index] = element;
+                    return true;
+                } finally {
+                    waiters--;
                 }
-            } else {
-                arr[index] = element;
+            } finally {
+                lock.unlock();
             }
-            return index;
         }
 
+        /**
+         * @throws IndexOutOfBoundsException if {@code index} is outside the committed prefix.
+         * */
+        @SuppressWarnings("unchecked")
         @Override
         public E get(int index) {
-            return array[index];
+            if (index < 0 || index >= published) throw new IndexOutOfBoundsException("index [" + index + "] outside the committed prefix");
+            int k = chunkOf(index);
+            return (E) chunks[k][offsetOf(index, k)];
         }
 
+        /**
+         * @return the length of the contiguous committed prefix, the same length {@link #publish()} would return.
+         * */
         @Override
-        public int size() {
-            return array.length;
-        }
+        public int size() { return published; }
 
         @Override
         public boolean equals(E[] that) {
-            return Arrays.equals(array, that);
+            final int n = published;
+            if (that == null || that.length != n) return false;
+            for (int i = 0; i < n; i++) {
+                int k = chunkOf(i);
+                if (!Objects.equals(chunks[k][offsetOf(i, k)], that[i])) return false;
+            }
+            return true;
         }
 
         /**
-         * May require read synchronization
+         * @return the contiguous prefix of committed elements.
          * */
         @Override
         public E[] publish() {
-            int l = - 1;
-            E[] wit = null;
-            E[] res;
-            while (wit != array || l != _index.get()) {
-                wit = array;
-                l = _index.get();
+            final int n = published;
+            E[] res = copyProvider.apply(n);
+            for (int k = 0, pos = 0; pos < n; k++) {
+                Object[] c = chunks[k];
+                int l = Math.min(c.length, n - pos);
+                System.arraycopy(c, 0, res, pos, l);
+                pos += l;
             }
-            assert wit != null;
-            int newLength = l + 1;
-            res = copyProvider.apply(newLength);
-            System.arraycopy(wit, 0, res, 0, newLength);
             return res;
         }
 
         /**
-         * May require read synchronization
+         * Iterates the contiguous prefix of committed elements, without copying.
          * */
         @Override
         public Iterator<E> iterator() {
-            int l = -2;
-            E[] wit = null;
-            final ArrayWindow<E> res;
-            // attempts cross field stabilization.
-            while (wit != array || l != _index.get()) {
-                wit = array;
-                l = _index.get();
-            }
-            res = new ArrayWindow<>(wit, 0, l);
-            return res.iterator();
+            final int n = published;
+            return new Iterator<>() {
+                int i = 0, k = 0, o = 0;
+
+                @Override
+                public boolean hasNext() { return i < n; }
+
+                @SuppressWarnings("unchecked")
+                @Override
+                public E next() {
+                    if (i >= n) throw new NoSuchElementException();
+                    Object[] c = chunks[k];
+                    E e = (E) c[o++];
+                    i++;
+                    if (o == c.length) {
+                        k++;
+                        o = 0;
+                    }
+                    return e;
+                }
+            };
         }
 
-        /**
-         * May require read synchronization.
-         * */
         @Override
         public String toString() {
-            int l = - 1;
-            E[] wit = null;
-            // attempts cross field stabilization.
-            while (wit != array || l != _index.get()) {
-                wit = array;
-                l = _index.get();
-            }
+            E[] snapshot = publish();
             return "Atomic{" +
                     "maxSize=" + maxSize +
-                    ", array=" + CompactArrayBuilder.toString(wit, l + 1) +
+                    ", array=" + CompactArrayBuilder.toString(snapshot, snapshot.length) +
                     '}';
         }
     }
 
     private static int getCeil(int length) { return (int) Math.ceil(length * 1.5); }
 
+    /**
+     * LSD radix sort of {@code a[0, n)}, one pass per byte, skipping the passes where every element shares the same byte.
+     * @param buf scratch buffer holding at least {@code n} elements from {@code bufOffset}, which may be {@code a} itself.
+     *            If null, it is allocated only when the radix path is taken.
+     * */
+    private static void radixSort(int[] a, int n, int[] buf, int bufOffset) {
+        // below this length Arrays.sort beats the histogram passes.
+        if (n < 256) {
+            Arrays.sort(a, 0, n);
+            return;
+        }
+        if (buf == null) buf = new int[n];
+        final int[] count = new int[256];
+        int[] src = a, dst = buf;
+        int srcOff = 0, dstOff = bufOffset;
+        for (int shift = 0; shift < 32; shift += 8) {
+            // the sign bit is flipped on the last pass, so negatives are placed first.
+            final int flip = shift == 24 ? 0x80 : 0;
+            Arrays.fill(count, 0);
+            for (int i = srcOff, l = srcOff + n; i < l; i++) count[((src[i] >>> shift) & 0xFF) ^ flip]++;
+            if (count[((src[srcOff] >>> shift) & 0xFF) ^ flip] == n) continue;
+            for (int b = 0, sum = dstOff; b < 256; b++) {
+                int c = count[b];
+                count[b] = sum;
+                sum += c;
+            }
+            for (int i = srcOff, l = srcOff + n; i < l; i++) {
+                int v = src[i];
+                dst[count[((v >>> shift) & 0xFF) ^ flip]++] = v;
+            }
+            int[] tmp = src;
+            src = dst;
+            dst = tmp;
+            int tmpOff = srcOff;
+            srcOff = dstOff;
+            dstOff = tmpOff;
+        }
+        if (src != a || srcOff != 0) System.arraycopy(src, srcOff, a, 0, n);
+    }
+
+    /**
+     * Compacts the sorted {@code a[0, n)} keeping the first of every run of elements that compare as 0.
+     * @param comparator if null, the natural ordering of the elements is used, same as {@link Arrays#parallelSort(Object[], Comparator)}.
+     * @return the new length.
+     * */
+    @SuppressWarnings("unchecked")
+    private static<S> int dedup(S[] a, int n, Comparator<? super S> comparator) {
+        if (n == 0) return 0;
+        if (comparator == null) comparator = (Comparator<? super S>) Comparator.naturalOrder();
+        int m = 1;
+        for (int i = 1; i < n; i++) {
+            S v = a[i];
+            if (comparator.compare(a[m - 1], v) != 0) a[m++] = v;
+        }
+        return m;
+    }
+
+    /**
+     * Compacts the sorted {@code a[0, n)} removing repeated values.
+     * @return the new length.
+     * */
+    private static int dedup(int[] a, int n) {
+        if (n == 0) return 0;
+        int m = 1;
+        for (int i = 1; i < n; i++) {
+            int v = a[i];
+            if (v != a[m - 1]) a[m++] = v;
+        }
+        return m;
+    }
+
     private static<S> String toString(S[] arr, int l) {
         assert l > -1;
         if (arr == null || l == 0) return "{}";
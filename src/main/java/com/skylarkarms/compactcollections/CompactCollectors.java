@@ -0,0 +1,109 @@
+package com.skylarkarms.compactcollections;
+
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collector;
+
+/**
+ * {@link Collector} factories that accumulate directly into {@link CompactArrayBuilder}s and {@link CompactHashTable}s.
+ * <p> Combiners merge partial results without re-adding elements:
+ * builders are concatenated with a single array copy, and tables relink the nodes of the right-hand table
+ * into the left-hand one.
+ * */
+public final class CompactCollectors {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private CompactCollectors() {}
+
+    /**
+     * @return a right-sized array with all stream elements in encounter order.
+     * */
+    public static<E> Collector<E, ?, E[]> toCompactArray(IntFunction<E[]> component) {
+        return toCompactArray(DEFAULT_CAPACITY, component);
+    }
+
+    /**
+     * @param initialSize the initial capacity of every partial builder.
+     * */
+    public static<E> Collector<E, ?, E[]> toCompactArray(int initialSize, IntFunction<E[]> component) {
+        return Collector.of(
+                () -> new CompactArrayBuilder.CompactArrayBuilderImpl<>(initialSize, component),
+                CompactArrayBuilder.CompactArrayBuilderImpl::add,
+                (left, right) -> {
+                    left.addAll(right);
+                    return left;
+                },
+                CompactArrayBuilder.CompactArrayBuilderImpl::publish
+        );
+    }
+
+    /**
+     * @return the builder itself, for further additions.
+     * */
+    public static<E> Collector<E, ?, CompactArrayBuilder<E>> toCompactArrayBuilder(int initialSize, IntFunction<E[]> component) {
+        return Collector.<E, CompactArrayBuilder.CompactArrayBuilderImpl<E>, CompactArrayBuilder<E>>of(
+                () -> new CompactArrayBuilder.CompactArrayBuilderImpl<>(initialSize, component),
+                CompactArrayBuilder.CompactArrayBuilderImpl::add,
+                (left, right) -> {
+                    left.addAll(right);
+                    return left;
+                },
+                builder -> builder,
+                Collector.Characteristics.IDENTITY_FINISH
+        );
+    }
+
+    public static Collector<Integer, ?, int[]> toCompactIntArray() {
+        return toCompactIntArray(DEFAULT_CAPACITY, Integer::intValue);
+    }
+
+    /**
+     * Avoids intermediate boxing by extracting the {@code int} straight from the stream element.
+     * */
+    public static<T> Collector<T, ?, int[]> toCompactIntArray(ToIntFunction<? super T> mapper) {
+        return toCompactIntArray(DEFAULT_CAPACITY, mapper);
+    }
+
+    public static<T> Collector<T, ?, int[]> toCompactIntArray(int initialSize, ToIntFunction<? super T> mapper) {
+        return Collector.of(
+                () -> new CompactArrayBuilder.OfInt.OfIntImpl(initialSize),
+                (builder, t) -> builder.add(mapper.applyAsInt(t)),
+                (left, right) -> {
+                    left.addAll(right);
+                    return left;
+                },
+                CompactArrayBuilder.OfInt.OfIntImpl::publish
+        );
+    }
+
+    /**
+     * On key matches the last value in encounter order wins, same as {@link CompactHashTable#put(Object, Object)}.
+     * */
+    public static<T, K, V> Collector<T, ?, CompactHashTable<K, V>> toCompactHashTable(
+            Function<? super T, ? extends K> keyFn,
+            Function<? super T, ? extends V> valueFn
+    ) {
+        return toCompactHashTable(DEFAULT_CAPACITY, keyFn, valueFn);
+    }
+
+    /**
+     * @param capacity the initial capacity of every partial table.
+     *                 Tables double once exceeded, sizing it to the expected number of distinct keys avoids the rehashes.
+     * */
+    public static<T, K, V> Collector<T, ?, CompactHashTable<K, V>> toCompactHashTable(
+            int capacity,
+            Function<? super T, ? extends K> keyFn,
+            Function<? super T, ? extends V> valueFn
+    ) {
+        return Collector.of(
+                () -> new CompactHashTable<K, V>(capacity),
+                (table, t) -> table.put(keyFn.apply(t), valueFn.apply(t)),
+                (left, right) -> {
+                    left.relinkAll(right);
+                    return left;
+                },
+                Collector.Characteristics.IDENTITY_FINISH
+        );
+    }
+}
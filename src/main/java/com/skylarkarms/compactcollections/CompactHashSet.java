@@ -0,0 +1,167 @@
+package com.skylarkarms.compactcollections;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Key-only version of {@link CompactHashTable}.
+ * <p> Same {@link HashSpine} engine, with insertion-ordered iteration, minus the {@code value} field on every entry.
+ * <p> The initial capacity should be sized up front, the table doubles once its size exceeds it.
+ * */
+public class CompactHashSet<K>
+        extends HashSpine<CompactHashSet.Node<K>>
+        implements Iterable<K> {
+
+    @SafeVarargs
+    public CompactHashSet(K... elements) {
+        this(elements.length);
+        for (int i = 0; i < elements.length; i++) {
+            add(elements[i]);
+        }
+    }
+
+    public CompactHashSet() { this(MIN_SIZE); }
+
+    public CompactHashSet(int capacity) { super(capacity); }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    Node<K>[] newTable(int length) { return new Node[length]; }
+
+    static final class Node<K> extends HashSpine.Entry<Node<K>> {
+        final K key;
+
+        Node(int hash, K key) {
+            super(hash);
+            this.key = key;
+        }
+    }
+
+    /**
+     * @return true if the key was not already present.
+     * */
+    public boolean add(K key) { return add(key.hashCode(), key); }
+
+    /**
+     * Same as {@link #add(Object)} but with a precomputed {@code hash}.
+     * @see CompactHashTable#put(int, Object, Object)
+     * */
+    public boolean add(int hash, K key) {
+        final int i = last_i & (hash ^ (hash >>> 16));
+        Node<K> bucket = table[i];
+        K t_k;
+        while (bucket != null) {
+            if (bucket.hash == hash
+                    &&
+                    ((t_k = bucket.key) == key
+                            || t_k.equals(key))
+            ) return false;
+            bucket = bucket.bucketNext;
+        }
+        link(i, new Node<>(hash, key));
+        return true;
+    }
+
+    /**
+     * Should only be used on collections where it is assured uniqueness between Keys.
+     * @see CompactHashTable#addDistinct(Object, Object)
+     * */
+    public void addDistinct(K key) { addDistinct(key.hashCode(), key); }
+
+    public void addDistinct(int hash, K key) {
+        link(last_i & (hash ^ (hash >>> 16)), new Node<>(hash, key));
+    }
+
+    public boolean contains(K key) { return contains(key.hashCode(), key); }
+
+    public boolean contains(int hash, K key) {
+        Node<K> h = table[last_i & (hash ^ (hash >>> 16))];
+        K t_k;
+        while (h != null) {
+            if (
+                    h.hash == hash
+                            &&
+                            (
+                                    (t_k = h.key) == key
+                                            ||
+                                            t_k.equals(key)
+                            )
+            ) return true;
+            h = h.bucketNext;
+        }
+        return false;
+    }
+
+    /**
+     * @return a new set with all keys of {@code this} followed by the keys of {@code that} not present in {@code this}.
+     * */
+    public CompactHashSet<K> union(CompactHashSet<K> that) {
+        CompactHashSet<K> res = new CompactHashSet<>(size + that.size);
+        for (Node<K> n = head; n != null; n = n.next) {
+            res.addDistinct(n.hash, n.key);
+        }
+        for (Node<K> n = that.head; n != null; n = n.next) {
+            if (!contains(n.hash, n.key)) res.addDistinct(n.hash, n.key);
+        }
+        return res;
+    }
+
+    /**
+     * Walks the shorter of both sets, probing the other one.
+     * @return a new set with the keys present in both sets, in the iteration order of the shorter one.
+     * */
+    public CompactHashSet<K> intersect(CompactHashSet<K> that) {
+        final CompactHashSet<K> shorter, longer;
+        if (size <= that.size) {
+            shorter = this;
+            longer = that;
+        } else {
+            shorter = that;
+            longer = this;
+        }
+        CompactHashSet<K> res = new CompactHashSet<>(shorter.size);
+        for (Node<K> n = shorter.head; n != null; n = n.next) {
+            if (longer.contains(n.hash, n.key)) res.addDistinct(n.hash, n.key);
+        }
+        return res;
+    }
+
+    /**
+     * @return a new set with the keys of {@code this} not present in {@code that}.
+     * */
+    public CompactHashSet<K> difference(CompactHashSet<K> that) {
+        CompactHashSet<K> res = new CompactHashSet<>(size);
+        for (Node<K> n = head; n != null; n = n.next) {
+            if (!that.contains(n.hash, n.key)) res.addDistinct(n.hash, n.key);
+        }
+        return res;
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new Iterator<>() {
+            private Node<K> current = head;
+
+            @Override
+            public boolean hasNext() { return current != null; }
+
+            @Override
+            public K next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Node<K> lastReturned = current;
+                current = current.next;
+                return lastReturned.key;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("CompactHashSet{");
+        for (Node<K> n = head; n != null; n = n.next) {
+            builder.append(n.key);
+            if (n.next != null) builder.append(", ");
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -3,21 +3,20 @@ package com.skylarkarms.compactcollections;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
-public class CompactHashTable<K, T> implements Iterable<CompactHashTable<K, T>.Node> {
-    private static final int MIN_SIZE = 16;
-
-    private final Node[] table;
-    private final int last_i;
-    private Node head, tail;
-    private int size;
+/**
+ * Insertion-ordered hash table.
+ * <p> The initial capacity should be sized up front, the table doubles once its size exceeds it.
+ * @see HashSpine
+ * */
+public class CompactHashTable<K, T>
+        extends HashSpine<CompactHashTable<K, T>.Node>
+        implements Iterable<CompactHashTable<K, T>.Node> {
 
     record NodeRecord<K, V>(K key, V value){}
 
-    @SuppressWarnings("unchecked")
     @SafeVarargs
     public CompactHashTable(NodeRecord<K, T>... elements) {
-        this.table = new CompactHashTable.Node[tableSizeFor(elements.length)];
-        last_i = table.length - 1;
+        super(elements.length);
         for (int i = 0; i < elements.length; i++) {
             NodeRecord<K, T> e = elements[i];
             put(e.key, e.value);
@@ -26,20 +25,15 @@ public class CompactHashTable<K, T> implements Iterable<CompactHashTable<K, T>.N
 
     public CompactHashTable() { this(MIN_SIZE); }
 
+    public CompactHashTable(int capacity) { super(capacity); }
+
     @SuppressWarnings("unchecked")
-    public CompactHashTable(int capacity) {
-        int l;
-        this.table = new CompactHashTable.Node[l = tableSizeFor(capacity)];
-        last_i = l - 1;
-    }
+    @Override
+    Node[] newTable(int length) { return new CompactHashTable.Node[length]; }
 
-    public final class Node {
-        final int hash;
+    public final class Node extends HashSpine.Entry<Node> {
         public final K key;
         T value;
-        Node next = null;        // Global spine pointer
-        Node bucketNext = null;  // Collision chain pointer
-        Node bucketTail;
 
         public T getValue() { return value; }
 
@@ -47,10 +41,9 @@ public class CompactHashTable<K, T> implements Iterable<CompactHashTable<K, T>.N
                 int hash,
                 K key, T value
         ) {
-            this.hash = hash;
+            super(hash);
             this.key = key;
             this.value = value;
-            this.bucketTail = this;
         }
 
         @Override
@@ -62,48 +55,32 @@ public class CompactHashTable<K, T> implements Iterable<CompactHashTable<K, T>.N
         }
     }
 
-    public void put(K key, T element) {
-        final int hash;
+    public void put(K key, T element) { put(key.hashCode(), key, element); }
+
+    /**
+     * Same as {@link #put(Object, Object)} but with a precomputed {@code hash}.
+     * <p> The hash MUST be the same one used by every other access to this same key,
+     * typically the value returned by {@link Object#hashCode()}.
+     * */
+    public void put(int hash, K key, T element) {
         final int i = last_i &
-                ((hash = key.hashCode()) ^ (hash >>> 16));
-
-        if (size != 0) {
-            Node bucket;
-            if ((bucket = table[i]) == null) {
-                // First entry in bucket
-                tail = tail.next = table[i] = new Node(hash, key, element);
-            } else {
-                K t_k;
-                if (
-                        bucket.hash == hash
-                                &&
-                                ((t_k = bucket.key) == key
-                                        || t_k.equals(key))
-                )   {
-                    // Update existing key's value
-                    bucket.value = element;
-                    return;
-                }
-                else if (bucket.bucketNext != null) {
-                    do {
-                        bucket = bucket.bucketNext;
-                        if (bucket.hash == hash
-                                &&
-                                ((t_k = bucket.key) == key
-                                        || t_k.equals(key))
-                        ) {
-                            // Update existing key's value
-                            bucket.value = element;
-                            return;
-                        }
-                    } while (bucket.bucketNext != null);
-                }
-                tail = tail.next = bucket.bucketNext = new Node(hash, key, element);
+                (hash ^ (hash >>> 16));
+        Node bucket = table[i];
+        K t_k;
+        while (bucket != null) {
+            if (
+                    bucket.hash == hash
+                            &&
+                            ((t_k = bucket.key) == key
+                                    || t_k.equals(key))
+            ) {
+                // Update existing key's value
+                bucket.value = element;
+                return;
             }
-        } else {
-            tail = head = table[i] = new Node(hash, key, element);
+            bucket = bucket.bucketNext;
         }
-        size++;
+        link(i, new Node(hash, key, element));
     }
 
     /**
@@ -117,39 +94,26 @@ public class CompactHashTable<K, T> implements Iterable<CompactHashTable<K, T>.N
      * FIRST object added to the bucket that was inserted in the collection.
      * The key will never be able to be retrieved... unless the entire collection is iterated.
      * */
-    //explicit assignment faster than "duped" (chained assignment)
-    public void addDistinct(K key, T element) {
-        final int hash = key.hashCode();
-        final int i = last_i & (hash ^ (hash >>> 16));
-        if (size != 0) {
-            Node h;
-            if ((h = table[i]) == null) {
-                // First entry in bucket
-                Node nh = new Node(hash, key, element);
-                table[i] = nh;
-                Node prevTail = tail;
-                tail = nh;
-                prevTail.next = nh;
-            } else {
-                Node newNode = new Node(hash, key, element);
-                h.bucketTail.bucketNext = newNode;
-                h.bucketTail = newNode;
-                Node prevTail = tail;
-                tail = newNode;
-                prevTail.next = newNode;
-            }
-        } else {
-            Node nn = new Node(hash, key, element);
-            table[i] = nn;
-            head = nn;
-            tail = nn;
-        }
-        size++;
+    public void addDistinct(K key, T element) { addDistinct(key.hashCode(), key, element); }
+
+    /**
+     * Same as {@link #addDistinct(Object, Object)} but with a precomputed {@code hash}.
+     * @see #put(int, Object, Object)
+     * */
+    public void addDistinct(int hash, K key, T element) {
+        link(last_i & (hash ^ (hash >>> 16)), new Node(hash, key, element));
     }
 
     public boolean contains(K key) {
+        return contains(key.hashCode(), key);
+    }
+
+    /**
+     * Same as {@link #contains(Object)} but with a precomputed {@code hash}.
+     * @see #put(int, Object, Object)
+     * */
+    public boolean contains(int hash, K key) {
         Node h;
-        final int hash = key.hashCode(); //hoisting before operation seems to perform better
         if ((h = table[
                 last_i & (hash ^ (hash >>> 16))
                 ]) != null) {
@@ -181,24 +145,17 @@ public class CompactHashTable<K, T> implements Iterable<CompactHashTable<K, T>.N
         return false;
     }
 
-    /**
-     * The maximum capacity, used if a higher value is implicitly specified
-     * by either of the constructors with arguments.
-     * MUST be a power of two <= 1<<30.
-     */
-    static final int MAXIMUM_CAPACITY = 1 << 30;
-
-    /**
-     * Returns a power of two size for the given target capacity.
-     */
-    static final int tableSizeFor(int cap) {
-        int n = -1 >>> Integer.numberOfLeadingZeros(cap - 1);
-        return (n < 0) ? 1 : (n >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : n + 1;
+    public T get(K key) {
+        assert key != null;
+        return get(key.hashCode(), key);
     }
 
-    public T get(K key) {
+    /**
+     * Same as {@link #get(Object)} but with a precomputed {@code hash}.
+     * @see #put(int, Object, Object)
+     * */
+    public T get(int hash, K key) {
         assert key != null;
-        int hash = key.hashCode();
         Node bucket;
         if ((bucket = table[
                 last_i & (hash ^ (hash >>> 16))
@@ -230,7 +187,15 @@ public class CompactHashTable<K, T> implements Iterable<CompactHashTable<K, T>.N
 
     public Node getNode(K key) {
         assert key != null;
-        int hash = key.hashCode();
+        return getNode(key.hashCode(), key);
+    }
+
+    /**
+     * Same as {@link #getNode(Object)} but with a precomputed {@code hash}.
+     * @see #put(int, Object, Object)
+     * */
+    public Node getNode(int hash, K key) {
+        assert key != null;
         Node bucket;
         if ((bucket = table[
                 last_i & (hash ^ (hash >>> 16))
@@ -260,9 +225,47 @@ public class CompactHashTable<K, T> implements Iterable<CompactHashTable<K, T>.N
         return null;
     }
 
-    public int size() { return size; }
-
-    public boolean isEmpty() { return size == 0; }
+    /**
+     * Moves every node of {@code that} table into this one, in {@code that}'s spine order.
+     * <p> Nodes are relinked, not re-created, and their hashes are reused.
+     * On key matches the value of {@code that} wins, same as {@link #put(Object, Object)}.
+     * <p> {@code that} table is left empty.
+     * */
+    void relinkAll(CompactHashTable<K, T> that) {
+        Node n = that.head;
+        that.head = that.tail = null;
+        that.size = 0;
+        // Nodes are inner instances of `that`, so they keep it reachable:
+        // a stub table is swapped in to avoid retaining the full partial table.
+        that.table = that.newTable(1);
+        that.last_i = 0;
+        outer:
+        while (n != null) {
+            final Node nextN = n.next;
+            n.next = null;
+            n.bucketNext = null;
+            n.bucketTail = n;
+            final int hash = n.hash;
+            final int i = last_i & (hash ^ (hash >>> 16));
+            final K key = n.key;
+            Node bucket = table[i];
+            K t_k;
+            while (bucket != null) {
+                if (bucket.hash == hash
+                        &&
+                        ((t_k = bucket.key) == key
+                                || t_k.equals(key))
+                ) {
+                    bucket.value = n.value;
+                    n = nextN;
+                    continue outer;
+                }
+                bucket = bucket.bucketNext;
+            }
+            link(i, n);
+            n = nextN;
+        }
+    }
 
     // Iterator remains the same as it uses the global spine
     public class ValueIterator implements Iterator<T> {
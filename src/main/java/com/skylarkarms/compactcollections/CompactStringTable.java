@@ -0,0 +1,308 @@
+package com.skylarkarms.compactcollections;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link CompactHashTable} specialized for textual keys.
+ * <p> The characters of every key are stored in a single contiguous {@code char[]} arena,
+ * so no {@link String} instance is required neither on insertion nor on lookup.
+ * Keys can be given as any {@link CharSequence} or as a {@code (char[], offset, length)} slice.
+ * <p> Hashes are computed with the same function as {@link String#hashCode()},
+ * so the hash of a {@link String} (or any precomputed hash following that same formula)
+ * can be supplied to the precomputed-hash overloads.
+ * */
+public class CompactStringTable<T>
+        extends HashSpine<CompactStringTable<T>.Node>
+        implements Iterable<CompactStringTable<T>.Node> {
+    private static final int MIN_ARENA = 64;
+
+    private char[] arena;
+    private int arenaIndex;
+
+    public CompactStringTable() { this(MIN_SIZE); }
+
+    public CompactStringTable(int capacity) { this(capacity, capacity * 8); }
+
+    /**
+     * @param arenaCapacity the initial capacity of the inner character arena, before
+     *                        incurring in a {@link System#arraycopy(Object, int, Object, int, int)} for arena expansion.
+     * */
+    public CompactStringTable(int capacity, int arenaCapacity) {
+        super(capacity);
+        this.arena = new char[Math.max(arenaCapacity, MIN_ARENA)];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    Node[] newTable(int length) { return new CompactStringTable.Node[length]; }
+
+    /**
+     * A key-value entry whose key is a view over the arena.
+     * <p> Reading the key as a {@link CharSequence} does not allocate, {@link #toString()} does.
+     * */
+    public final class Node
+            extends HashSpine.Entry<Node>
+            implements CharSequence {
+        final int offset, length;
+        T value;
+
+        public T getValue() { return value; }
+
+        Node(
+                int hash,
+                int offset, int length, T value
+        ) {
+            super(hash);
+            this.offset = offset;
+            this.length = length;
+            this.value = value;
+        }
+
+        @Override
+        public int length() { return length; }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) throw new IndexOutOfBoundsException("index [" + index + "] out of length [" + length + "]");
+            return arena[offset + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) { return toString().subSequence(start, end); }
+
+        /**
+         * Copies the key into {@code dest} beginning at {@code destOffset}.
+         * */
+        public void getChars(char[] dest, int destOffset) {
+            System.arraycopy(arena, offset, dest, destOffset, length);
+        }
+
+        /**
+         * @return a new {@link String} instance of this key.
+         * */
+        @Override
+        public String toString() { return new String(arena, offset, length); }
+    }
+
+    /**
+     * The same function as {@link String#hashCode()}.
+     * <p> For {@link String} keys, their cached {@link String#hashCode()} is returned.
+     * */
+    public static int hash(CharSequence key) {
+        if (key instanceof String) return key.hashCode();
+        int h = 0;
+        for (int i = 0, l = key.length(); i < l; i++) {
+            h = 31 * h + key.charAt(i);
+        }
+        return h;
+    }
+
+    /**
+     * The same function as {@link String#hashCode()}, applied over the {@code [offset, offset + length)} slice.
+     * */
+    public static int hash(char[] key, int offset, int length) {
+        int h = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            h = 31 * h + key[i];
+        }
+        return h;
+    }
+
+    private boolean matches(Node n, int hash, CharSequence key) {
+        int l;
+        if (n.hash != hash || (l = n.length) != key.length()) return false;
+        final char[] a = arena;
+        for (int i = 0, o = n.offset; i < l; i++, o++) {
+            if (a[o] != key.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private boolean matches(Node n, int hash, char[] key, int offset, int length) {
+        if (n.hash != hash || n.length != length) return false;
+        final char[] a = arena;
+        for (int i = 0, o = n.offset; i < length; i++, o++) {
+            if (a[o] != key[offset + i]) return false;
+        }
+        return true;
+    }
+
+    private int reserve(int length) {
+        char[] cur = arena;
+        int start = arenaIndex, end = start + length;
+        if (end > cur.length) {
+            int ceil = (int) Math.ceil(cur.length * 1.5);
+            char[] copy = new char[Math.max(ceil, end)];
+            System.arraycopy(cur, 0, copy, 0, start);
+            arena = copy;
+        }
+        arenaIndex = end;
+        return start;
+    }
+
+    private Node newNode(int hash, CharSequence key, T element) {
+        int l = key.length();
+        int offset = reserve(l);
+        final char[] a = arena;
+        if (key instanceof String s) {
+            s.getChars(0, l, a, offset);
+        } else {
+            for (int i = 0; i < l; i++) {
+                a[offset + i] = key.charAt(i);
+            }
+        }
+        return new Node(hash, offset, l, element);
+    }
+
+    private Node newNode(int hash, char[] key, int offset, int length, T element) {
+        int o = reserve(length);
+        System.arraycopy(key, offset, arena, o, length);
+        return new Node(hash, o, length, element);
+    }
+
+    public void put(CharSequence key, T element) { put(hash(key), key, element); }
+
+    /**
+     * Same as {@link #put(CharSequence, Object)} but with a precomputed {@code hash}.
+     * <p> The hash MUST be the one given by {@link #hash(CharSequence)} (equivalently {@link String#hashCode()}).
+     * */
+    public void put(int hash, CharSequence key, T element) {
+        final int i = last_i & (hash ^ (hash >>> 16));
+        Node found = find(i, hash, key);
+        if (found != null) {
+            // Update existing key's value
+            found.value = element;
+            return;
+        }
+        link(i, newNode(hash, key, element));
+    }
+
+    public void put(char[] key, int offset, int length, T element) { put(hash(key, offset, length), key, offset, length, element); }
+
+    /**
+     * Same as {@link #put(char[], int, int, Object)} but with a precomputed {@code hash}.
+     * @see #put(int, CharSequence, Object)
+     * */
+    public void put(int hash, char[] key, int offset, int length, T element) {
+        final int i = last_i & (hash ^ (hash >>> 16));
+        Node found = find(i, hash, key, offset, length);
+        if (found != null) {
+            // Update existing key's value
+            found.value = element;
+            return;
+        }
+        link(i, newNode(hash, key, offset, length, element));
+    }
+
+    /**
+     * Should only be used on collections where it is assured uniqueness between Keys.
+     * @see CompactHashTable#addDistinct(Object, Object)
+     * */
+    public void addDistinct(CharSequence key, T element) { addDistinct(hash(key), key, element); }
+
+    public void addDistinct(int hash, CharSequence key, T element) {
+        link(last_i & (hash ^ (hash >>> 16)), newNode(hash, key, element));
+    }
+
+    public void addDistinct(char[] key, int offset, int length, T element) {
+        addDistinct(hash(key, offset, length), key, offset, length, element);
+    }
+
+    public void addDistinct(int hash, char[] key, int offset, int length, T element) {
+        link(last_i & (hash ^ (hash >>> 16)), newNode(hash, key, offset, length, element));
+    }
+
+    private Node find(int i, int hash, CharSequence key) {
+        Node bucket = table[i];
+        while (bucket != null) {
+            if (matches(bucket, hash, key)) return bucket;
+            bucket = bucket.bucketNext;
+        }
+        return null;
+    }
+
+    private Node find(int i, int hash, char[] key, int offset, int length) {
+        Node bucket = table[i];
+        while (bucket != null) {
+            if (matches(bucket, hash, key, offset, length)) return bucket;
+            bucket = bucket.bucketNext;
+        }
+        return null;
+    }
+
+    public boolean contains(CharSequence key) { return contains(hash(key), key); }
+
+    public boolean contains(int hash, CharSequence key) {
+        return find(last_i & (hash ^ (hash >>> 16)), hash, key) != null;
+    }
+
+    public boolean contains(char[] key, int offset, int length) {
+        return contains(hash(key, offset, length), key, offset, length);
+    }
+
+    public boolean contains(int hash, char[] key, int offset, int length) {
+        return find(last_i & (hash ^ (hash >>> 16)), hash, key, offset, length) != null;
+    }
+
+    public T get(CharSequence key) { return get(hash(key), key); }
+
+    public T get(int hash, CharSequence key) {
+        Node n = find(last_i & (hash ^ (hash >>> 16)), hash, key);
+        return n == null ? null : n.value;
+    }
+
+    public T get(char[] key, int offset, int length) { return get(hash(key, offset, length), key, offset, length); }
+
+    public T get(int hash, char[] key, int offset, int length) {
+        Node n = find(last_i & (hash ^ (hash >>> 16)), hash, key, offset, length);
+        return n == null ? null : n.value;
+    }
+
+    public Node getNode(CharSequence key) { return getNode(hash(key), key); }
+
+    public Node getNode(int hash, CharSequence key) {
+        return find(last_i & (hash ^ (hash >>> 16)), hash, key);
+    }
+
+    public Node getNode(char[] key, int offset, int length) { return getNode(hash(key, offset, length), key, offset, length); }
+
+    public Node getNode(int hash, char[] key, int offset, int length) {
+        return find(last_i & (hash ^ (hash >>> 16)), hash, key, offset, length);
+    }
+
+    public class ValueIterator implements Iterator<T> {
+        private Node current = head;
+
+        @Override
+        public boolean hasNext() { return current != null; }
+
+        @Override
+        public T next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Node lastReturned = current;
+            current = current.next;
+            return lastReturned.value;
+        }
+    }
+
+    public class NodeIterator implements Iterator<Node> {
+        private Node current = head;
+
+        @Override
+        public boolean hasNext() { return current != null; }
+
+        @Override
+        public Node next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Node lastReturned = current;
+            current = current.next;
+            return lastReturned;
+        }
+    }
+
+    @Override
+    public NodeIterator iterator() { return new NodeIterator(); }
+
+    public ValueIterator valueIterator() { return new ValueIterator(); }
+}
@@ -0,0 +1,103 @@
+package com.skylarkarms.compactcollections;
+
+/**
+ * Bucket + global spine engine shared by {@link CompactHashTable}, {@link CompactHashSet} and {@link CompactStringTable}.
+ * <p> Every entry is linked twice: into the global spine, in insertion order, and into the collision chain of its bucket.
+ * Subclasses only implement key probing, while linking and growth live here.
+ * <p> Once the size exceeds the length of the table, the table doubles and the spine is walked to re-bucket every entry,
+ * reusing the stored hashes, entries are never re-created.
+ * Bucket chains keep their insertion order across growths.
+ * */
+abstract class HashSpine<N extends HashSpine.Entry<N>> {
+    static final int MIN_SIZE = 16;
+
+    /**
+     * The maximum capacity, used if a higher value is implicitly specified
+     * by either of the constructors with arguments.
+     * MUST be a power of two <= 1<<30.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    N[] table;
+    int last_i;
+    N head, tail;
+    int size;
+
+    abstract static class Entry<N extends Entry<N>> {
+        final int hash;
+        N next = null;        // Global spine pointer
+        N bucketNext = null;  // Collision chain pointer
+        N bucketTail;         // Only meaningful on the first entry of a bucket
+
+        @SuppressWarnings("unchecked")
+        Entry(int hash) {
+            this.hash = hash;
+            this.bucketTail = (N) this;
+        }
+    }
+
+    HashSpine(int capacity) {
+        int l;
+        this.table = newTable(l = tableSizeFor(capacity));
+        last_i = l - 1;
+    }
+
+    abstract N[] newTable(int length);
+
+    /**
+     * Returns a power of two size for the given target capacity.
+     */
+    static int tableSizeFor(int cap) {
+        int n = -1 >>> Integer.numberOfLeadingZeros(cap - 1);
+        return (n < 0) ? 1 : (n >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : n + 1;
+    }
+
+    /**
+     * Appends {@code nn} at the end of the {@code i} bucket and at the end of the spine.
+     * @param i the bucket index, computed against the current {@link #last_i}.
+     * */
+    //explicit assignment faster than "duped" (chained assignment)
+    final void link(int i, N nn) {
+        N h;
+        if ((h = table[i]) == null) {
+            table[i] = nn;
+        } else {
+            h.bucketTail.bucketNext = nn;
+            h.bucketTail = nn;
+        }
+        if (size != 0) {
+            N prevTail = tail;
+            tail = nn;
+            prevTail.next = nn;
+        } else {
+            head = nn;
+            tail = nn;
+        }
+        if (++size > table.length) grow();
+    }
+
+    private void grow() {
+        final int l = table.length;
+        if (l >= MAXIMUM_CAPACITY) return;
+        final int nl = l << 1, li = nl - 1;
+        final N[] nt = newTable(nl);
+        for (N n = head; n != null; n = n.next) {
+            n.bucketNext = null;
+            n.bucketTail = n;
+            final int hash = n.hash, i = li & (hash ^ (hash >>> 16));
+            N h;
+            if ((h = nt[i]) == null) {
+                nt[i] = n;
+            } else {
+                h.bucketTail.bucketNext = n;
+                h.bucketTail = n;
+            }
+        }
+        table = nt;
+        last_i = li;
+    }
+
+    public int size() { return size; }
+
+    public boolean isEmpty() { return size == 0; }
+}
@@ -0,0 +1,91 @@
+package com.skylarkarms.compactcollections;
+
+/**
+ * Bulk operations over the {@code [0, length)} prefix of {@code int} arrays.
+ * <p> {@link #INSTANCE} is backed by the {@code jdk.incubator.vector} API when the module
+ * is present in the boot layer ({@code --add-modules jdk.incubator.vector}), and by plain scalar loops otherwise.
+ * */
+interface IntOps {
+    IntOps INSTANCE = load();
+
+    private static IntOps load() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (IntOps) Class.forName("com.skylarkarms.compactcollections.VectorIntOps")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError ignored) {
+                // falls back to scalar.
+            }
+        }
+        return new Scalar();
+    }
+
+    /**
+     * @return the first index of {@code value}, or -1 if absent.
+     * */
+    int indexOf(int[] a, int length, int value);
+    long sum(int[] a, int length);
+    /**
+     * @return {@link Integer#MAX_VALUE} if length is 0.
+     * */
+    int min(int[] a, int length);
+    /**
+     * @return {@link Integer#MIN_VALUE} if length is 0.
+     * */
+    int max(int[] a, int length);
+    /**
+     * @return the number of elements within {@code [from, to]}, both inclusive.
+     * */
+    int countInRange(int[] a, int length, int from, int to);
+    /**
+     * Adds {@code row[0, length)} into {@code acc[0, length)}.
+     * */
+    void accumulate(long[] acc, int[] row, int length);
+
+    final class Scalar implements IntOps {
+
+        @Override
+        public int indexOf(int[] a, int length, int value) {
+            for (int i = 0; i < length; i++) {
+                if (a[i] == value) return i;
+            }
+            return -1;
+        }
+
+        @Override
+        public long sum(int[] a, int length) {
+            long s = 0;
+            for (int i = 0; i < length; i++) s += a[i];
+            return s;
+        }
+
+        @Override
+        public int min(int[] a, int length) {
+            int m = Integer.MAX_VALUE;
+            for (int i = 0; i < length; i++) m = Math.min(m, a[i]);
+            return m;
+        }
+
+        @Override
+        public int max(int[] a, int length) {
+            int m = Integer.MIN_VALUE;
+            for (int i = 0; i < length; i++) m = Math.max(m, a[i]);
+            return m;
+        }
+
+        @Override
+        public int countInRange(int[] a, int length, int from, int to) {
+            int c = 0;
+            for (int i = 0; i < length; i++) {
+                int v = a[i];
+                if (v >= from && v <= to) c++;
+            }
+            return c;
+        }
+
+        @Override
+        public void accumulate(long[] acc, int[] row, int length) {
+            for (int i = 0; i < length; i++) acc[i] += row[i];
+        }
+    }
+}
@@ -0,0 +1,49 @@
+import com.skylarkarms.compactcollections.CompactArrayBuilder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Checks that {@code awaitSize(n)} implies {@code publish().length >= n} while producers keep adding.
+ * */
+public class AwaitPublishTest {
+    static final int size = 100_000, producers = 8, rounds = 200;
+    public static void main(String[] args) throws InterruptedException {
+        record Rec(int i, String s){}
+        final ExecutorService pool = Executors.newFixedThreadPool(producers);
+        for (int r = 0; r < rounds; r++) {
+            // small initial capacity, so that growth overlaps the reads.
+            CompactArrayBuilder.Atomic<Rec> receipt = CompactArrayBuilder.atomic(2, Rec[]::new);
+            CountDownLatch done = new CountDownLatch(producers);
+            for (int p = 0; p < producers; p++) {
+                int finalP = p;
+                pool.execute(
+                        () -> {
+                            for (int i = finalP; i < size; i += producers) {
+                                receipt.add(new Rec(i, "ID = ".concat(String.valueOf(i))));
+                            }
+                            done.countDown();
+                        }
+                );
+            }
+            int half = size / 2;
+            receipt.awaitSize(half);
+            Rec[] pub = receipt.publish();
+            if (pub.length < half) throw new IllegalStateException(
+                    "round " + r + ": published " + pub.length + " after awaiting " + half);
+            for (int i = 0; i < pub.length; i++) {
+                if (pub[i] == null) throw new NullPointerException("round " + r + ": slot " + i);
+            }
+            int sizeBefore = receipt.size();
+            int pubLength = receipt.publish().length;
+            if (pubLength < sizeBefore) throw new IllegalStateException(
+                    "round " + r + ": size() = " + sizeBefore + " ahead of publish().length = " + pubLength);
+            done.await();
+            if (receipt.size() != size || receipt.publish().length != size) throw new IllegalStateException(
+                    "round " + r + ": expected " + size + ", size() = " + receipt.size());
+        }
+        pool.shutdown();
+        System.out.println("AwaitPublishTest: " + rounds + " rounds OK");
+    }
+}
@@ -0,0 +1,73 @@
+import com.skylarkarms.compactcollections.CompactArrayBuilder;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Checks {@code OfInt.publishSorted()} and {@code OfInt.publishSortedDistinct()} against {@link Arrays#sort(int[])},
+ * below and above the radix threshold (256), with and without a spare capacity able to hold the radix scratch.
+ * */
+public class RadixSortTest {
+    static final int[] sizes = {0, 1, 2, 100, 255, 256, 257, 1_000, 4_099, 100_000};
+
+    public static void main(String[] args) {
+        final Random r = new Random(42);
+        final String[] names = {"random", "negatives", "high byte only", "low byte only", "all equal", "all equal negative", "extremes"};
+        final IntUnaryOperator[] generators = {
+                i -> r.nextInt(),
+                i -> -1 - r.nextInt(Integer.MAX_VALUE),
+                // every byte but the top one is uniform, so only the sign-flipped pass runs.
+                i -> r.nextInt(256) << 24,
+                i -> r.nextInt(256),
+                i -> 7,
+                i -> -7,
+                i -> switch (r.nextInt(4)) {
+                    case 0 -> Integer.MIN_VALUE;
+                    case 1 -> Integer.MAX_VALUE;
+                    case 2 -> 0;
+                    default -> -1;
+                }
+        };
+        int checks = 0;
+        for (int g = 0; g < generators.length; g++) {
+            for (int n : sizes) {
+                int[] source = new int[n];
+                Arrays.setAll(source, generators[g]::applyAsInt);
+                int[] sorted = source.clone();
+                Arrays.sort(sorted);
+                int[] distinct = Arrays.stream(sorted).distinct().toArray();
+                // capacity n: no spare room, capacity 2n: the spare capacity doubles as scratch.
+                for (int capacity : new int[]{n, 2 * n}) {
+                    String tag = names[g] + ", n = " + n + ", capacity = " + capacity;
+
+                    CompactArrayBuilder.OfInt builder = fill(capacity, source);
+                    check(tag + ", publishSorted", sorted, builder.publishSorted());
+                    check(tag + ", publishSorted leaves the builder sorted", sorted, builder.publish());
+
+                    builder = fill(capacity, source);
+                    check(tag + ", publishSortedDistinct", distinct, builder.publishSortedDistinct());
+                    check(tag + ", publishSortedDistinct leaves the builder deduplicated", distinct, builder.publish());
+                    if (builder.size() != distinct.length) throw new IllegalStateException(
+                            tag + ": size() = " + builder.size() + ", expected " + distinct.length);
+                    checks += 5;
+                }
+            }
+        }
+        System.out.println("RadixSortTest: " + checks + " checks OK");
+    }
+
+    static CompactArrayBuilder.OfInt fill(int capacity, int[] source) {
+        CompactArrayBuilder.OfInt builder = CompactArrayBuilder.OfInt.ofSize(capacity);
+        for (int v : source) builder.add(v);
+        return builder;
+    }
+
+    static void check(String tag, int[] expected, int[] actual) {
+        if (!Arrays.equals(expected, actual)) {
+            int i = Arrays.mismatch(expected, actual);
+            throw new IllegalStateException(
+                    tag + ": mismatch at " + i + ", expected length " + expected.length + ", actual length " + actual.length);
+        }
+    }
+}
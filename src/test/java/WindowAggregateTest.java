@@ -0,0 +1,140 @@
+import com.skylarkarms.compactcollections.ArrayWindow;
+
+import java.util.Random;
+
+/**
+ * Checks the incremental {@code sum()}, {@code min()} and {@code max()} of the primitive {@link ArrayWindow}s
+ * against a recomputation over the window, after every random {@code slide} and {@code reset}.
+ * <p> Aggregates are queried at random, so they start being tracked at different positions.
+ * */
+public class WindowAggregateTest {
+    static final int arrays = 300, steps = 400;
+
+    public static void main(String[] args) {
+        final Random r = new Random(42);
+        int checks = 0;
+        for (int a = 0; a < arrays; a++) {
+            final int length = 1 + r.nextInt(200);
+            int[] ints = new int[length];
+            long[] longs = new long[length];
+            double[] doubles = new double[length];
+            for (int i = 0; i < length; i++) {
+                // few distinct values, so ties are frequent.
+                int v = r.nextInt(a % 2 == 0 ? 10 : 1_000) - 5;
+                ints[i] = v;
+                longs[i] = (long) v << 33;
+                doubles[i] = switch (r.nextInt(12)) {
+                    case 0 -> Double.NaN;
+                    case 1 -> -0.0;
+                    case 2 -> 0.0;
+                    case 3 -> r.nextBoolean() ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+                    // integral values, so that incremental sums are exact.
+                    default -> v;
+                };
+            }
+            int start = r.nextInt(length), end = start - 1 + r.nextInt(length - start + 1);
+            ArrayWindow.OfInt wi = new ArrayWindow.OfInt(ints, start, end);
+            ArrayWindow.OfLong wl = new ArrayWindow.OfLong(longs, start, end);
+            ArrayWindow.OfDouble wd = new ArrayWindow.OfDouble(doubles, start, end);
+            for (int s = 0; s < steps; s++) {
+                if (r.nextInt(20) == 0) {
+                    start = r.nextInt(length);
+                    end = start - 1 + r.nextInt(length - start + 1);
+                    wi.reset(start, end);
+                    wl.reset(start, end);
+                    wd.reset(start, end);
+                } else {
+                    // valid shifts are within [-start, length - 1 - end], mostly small forward ones.
+                    int lo = -start, hi = length - 1 - end;
+                    int n = r.nextInt(4) != 0 && hi > 0 ?
+                            1 + r.nextInt(Math.min(hi, Math.max(1, (end - start + 1) / 2 + 1)))
+                            :
+                            lo + r.nextInt(hi - lo + 1);
+                    start += n;
+                    end += n;
+                    wi.slide(n);
+                    wl.slide(n);
+                    wd.slide(n);
+                }
+                String tag = "array " + a + ", step " + s + ", [" + start + ", " + end + "]";
+                checks += check(tag, r, wi, ints, start, end);
+                checks += check(tag, r, wl, longs, start, end);
+                checks += check(tag, r, wd, doubles, start, end);
+            }
+        }
+        System.out.println("WindowAggregateTest: " + checks + " checks OK");
+    }
+
+    static int check(String tag, Random r, ArrayWindow.OfInt w, int[] o, int start, int end) {
+        int checks = 0;
+        if (r.nextBoolean()) {
+            long s = 0;
+            for (int i = start; i <= end; i++) s += o[i];
+            expect(tag + ", OfInt.sum", s, w.sum());
+            checks++;
+        }
+        if (end >= start && r.nextBoolean()) {
+            int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+            for (int i = start; i <= end; i++) {
+                min = Math.min(min, o[i]);
+                max = Math.max(max, o[i]);
+            }
+            expect(tag + ", OfInt.min", min, w.min());
+            expect(tag + ", OfInt.max", max, w.max());
+            checks += 2;
+        }
+        return checks;
+    }
+
+    static int check(String tag, Random r, ArrayWindow.OfLong w, long[] o, int start, int end) {
+        int checks = 0;
+        if (r.nextBoolean()) {
+            long s = 0;
+            for (int i = start; i <= end; i++) s += o[i];
+            expect(tag + ", OfLong.sum", s, w.sum());
+            checks++;
+        }
+        if (end >= start && r.nextBoolean()) {
+            long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+            for (int i = start; i <= end; i++) {
+                min = Math.min(min, o[i]);
+                max = Math.max(max, o[i]);
+            }
+            expect(tag + ", OfLong.min", min, w.min());
+            expect(tag + ", OfLong.max", max, w.max());
+            checks += 2;
+        }
+        return checks;
+    }
+
+    static int check(String tag, Random r, ArrayWindow.OfDouble w, double[] o, int start, int end) {
+        int checks = 0;
+        if (r.nextBoolean()) {
+            double s = 0;
+            for (int i = start; i <= end; i++) s += o[i];
+            double actual = w.sum();
+            if (Double.isNaN(s) ? !Double.isNaN(actual) : s != actual) throw new IllegalStateException(
+                    tag + ", OfDouble.sum: expected " + s + ", actual " + actual);
+            checks++;
+        }
+        if (end >= start && r.nextBoolean()) {
+            // the same total order as Double.compare: -0.0 below 0.0, NaN above everything.
+            double min = o[start], max = o[start];
+            for (int i = start + 1; i <= end; i++) {
+                if (Double.compare(o[i], min) < 0) min = o[i];
+                if (Double.compare(o[i], max) > 0) max = o[i];
+            }
+            if (Double.compare(min, w.min()) != 0) throw new IllegalStateException(
+                    tag + ", OfDouble.min: expected " + min + ", actual " + w.min());
+            if (Double.compare(max, w.max()) != 0) throw new IllegalStateException(
+                    tag + ", OfDouble.max: expected " + max + ", actual " + w.max());
+            checks += 2;
+        }
+        return checks;
+    }
+
+    static void expect(String tag, long expected, long actual) {
+        if (expected != actual) throw new IllegalStateException(
+                tag + ": expected " + expected + ", actual " + actual);
+    }
+}
@@ -0,0 +1,61 @@
+package com.skylarkarms.compactcollections;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks that {@link IntOps#INSTANCE} agrees with {@link IntOps.Scalar} on every operation,
+ * over every length up to several vector widths (so both multiples of the lane count and tails are covered).
+ * <p> Must be run with {@code --add-modules jdk.incubator.vector}, otherwise {@link IntOps#INSTANCE} is scalar and the check fails.
+ * */
+public class VectorParityTest {
+    public static void main(String[] args) {
+        final IntOps vector = IntOps.INSTANCE, scalar = new IntOps.Scalar();
+        if (vector instanceof IntOps.Scalar) throw new IllegalStateException(
+                "IntOps.INSTANCE is scalar, run with --add-modules jdk.incubator.vector");
+        final Random r = new Random(42);
+        int checks = 0;
+        for (int length = 0; length <= 300; length++) {
+            for (int round = 0; round < 4; round++) {
+                int[] a = new int[length + r.nextInt(3)];
+                final int bound = round == 0 ? 16 : round == 1 ? 1_000 : 0;
+                for (int i = 0; i < a.length; i++) {
+                    a[i] = round == 3 ?
+                            (r.nextBoolean() ? Integer.MAX_VALUE : Integer.MIN_VALUE)
+                            :
+                            bound == 0 ? r.nextInt() : r.nextInt(bound) - bound / 2;
+                }
+                String tag = "length = " + length + ", round = " + round;
+
+                int value = length == 0 ? 0 : a[r.nextInt(length)];
+                check(tag + ", indexOf", scalar.indexOf(a, length, value), vector.indexOf(a, length, value));
+                check(tag + ", indexOf absent", scalar.indexOf(a, length, 12_345_678), vector.indexOf(a, length, 12_345_678));
+                check(tag + ", sum", scalar.sum(a, length), vector.sum(a, length));
+                check(tag + ", min", scalar.min(a, length), vector.min(a, length));
+                check(tag + ", max", scalar.max(a, length), vector.max(a, length));
+                int from = length == 0 ? 0 : a[r.nextInt(length)], to = length == 0 ? 0 : a[r.nextInt(length)];
+                check(tag + ", countInRange", scalar.countInRange(a, length, from, to), vector.countInRange(a, length, from, to));
+                check(tag + ", countInRange all", scalar.countInRange(a, length, Integer.MIN_VALUE, Integer.MAX_VALUE),
+                        vector.countInRange(a, length, Integer.MIN_VALUE, Integer.MAX_VALUE));
+
+                // the accumulator is longer than the row, so lanes written past `length` would show up.
+                long[] accS = new long[length + 8];
+                for (int i = 0; i < accS.length; i++) accS[i] = r.nextLong() >> 8;
+                long[] accV = accS.clone();
+                for (int times = 0; times < 3; times++) {
+                    scalar.accumulate(accS, a, length);
+                    vector.accumulate(accV, a, length);
+                }
+                if (!Arrays.equals(accS, accV)) throw new IllegalStateException(
+                        tag + ", accumulate: mismatch at " + Arrays.mismatch(accS, accV));
+                checks += 8;
+            }
+        }
+        System.out.println("VectorParityTest: " + vector.getClass().getSimpleName() + ", " + checks + " checks OK");
+    }
+
+    static void check(String tag, long expected, long actual) {
+        if (expected != actual) throw new IllegalStateException(
+                tag + ": expected " + expected + ", actual " + actual);
+    }
+}
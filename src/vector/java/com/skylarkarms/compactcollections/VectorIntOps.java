@@ -0,0 +1,99 @@
+package com.skylarkarms.compactcollections;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link IntOps} backed by the {@code jdk.incubator.vector} API.
+ * <p> Only ever loaded reflectively by {@link IntOps#INSTANCE}, so that the rest of the library links without the module.
+ * <p> Sums are widened to {@code long} lanes, so they do not overflow before the final reduction.
+ * */
+final class VectorIntOps implements IntOps {
+    private static final VectorSpecies<Integer> INT = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONG = LongVector.SPECIES_PREFERRED;
+    private static final int STEP = INT.length();
+
+    @Override
+    public int indexOf(int[] a, int length, int value) {
+        int i = 0;
+        for (int bound = INT.loopBound(length); i < bound; i += STEP) {
+            VectorMask<Integer> m = IntVector.fromArray(INT, a, i).eq(value);
+            if (m.anyTrue()) return i + m.firstTrue();
+        }
+        for (; i < length; i++) {
+            if (a[i] == value) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public long sum(int[] a, int length) {
+        int i = 0;
+        LongVector acc0 = LongVector.zero(LONG), acc1 = LongVector.zero(LONG);
+        for (int bound = INT.loopBound(length); i < bound; i += STEP) {
+            IntVector v = IntVector.fromArray(INT, a, i);
+            acc0 = acc0.add((LongVector) v.convertShape(VectorOperators.I2L, LONG, 0));
+            acc1 = acc1.add((LongVector) v.convertShape(VectorOperators.I2L, LONG, 1));
+        }
+        long s = acc0.add(acc1).reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) s += a[i];
+        return s;
+    }
+
+    @Override
+    public int min(int[] a, int length) {
+        int i = 0;
+        IntVector acc = IntVector.broadcast(INT, Integer.MAX_VALUE);
+        for (int bound = INT.loopBound(length); i < bound; i += STEP) {
+            acc = acc.min(IntVector.fromArray(INT, a, i));
+        }
+        int m = acc.reduceLanes(VectorOperators.MIN);
+        for (; i < length; i++) m = Math.min(m, a[i]);
+        return m;
+    }
+
+    @Override
+    public int max(int[] a, int length) {
+        int i = 0;
+        IntVector acc = IntVector.broadcast(INT, Integer.MIN_VALUE);
+        for (int bound = INT.loopBound(length); i < bound; i += STEP) {
+            acc = acc.max(IntVector.fromArray(INT, a, i));
+        }
+        int m = acc.reduceLanes(VectorOperators.MAX);
+        for (; i < length; i++) m = Math.max(m, a[i]);
+        return m;
+    }
+
+    @Override
+    public int countInRange(int[] a, int length, int from, int to) {
+        int i = 0, c = 0;
+        for (int bound = INT.loopBound(length); i < bound; i += STEP) {
+            IntVector v = IntVector.fromArray(INT, a, i);
+            c += v.compare(VectorOperators.GE, from).and(v.compare(VectorOperators.LE, to)).trueCount();
+        }
+        for (; i < length; i++) {
+            int v = a[i];
+            if (v >= from && v <= to) c++;
+        }
+        return c;
+    }
+
+    @Override
+    public void accumulate(long[] acc, int[] row, int length) {
+        int i = 0;
+        final int half = LONG.length();
+        for (int bound = INT.loopBound(length); i < bound; i += STEP) {
+            IntVector v = IntVector.fromArray(INT, row, i);
+            LongVector.fromArray(LONG, acc, i)
+                    .add((LongVector) v.convertShape(VectorOperators.I2L, LONG, 0))
+                    .intoArray(acc, i);
+            LongVector.fromArray(LONG, acc, i + half)
+                    .add((LongVector) v.convertShape(VectorOperators.I2L, LONG, 1))
+                    .intoArray(acc, i + half);
+        }
+        for (; i < length; i++) acc[i] += row[i];
+    }
+}